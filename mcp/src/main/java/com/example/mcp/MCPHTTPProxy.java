@@ -3,23 +3,52 @@ package com.example.mcp;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
 
 import java.io.*;
+import java.net.ConnectException;
 import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 public class MCPHTTPProxy {
+    private static final int CONNECT_TIMEOUT_MS = 5000;
+    // Zeitpuffer, damit der Server seinen eigenen Timeout-Fehler noch senden kann
+    private static final long READ_TIMEOUT_GRACE_MS = 1000;
+
     private final String serverUrl;
+    private final String sessionId;
     private final Gson gson;
     private final BufferedReader stdin;
     private final PrintWriter stdout;
+    private final ExecutorService workers;
+    private final Map<String, Pending> inFlight;
 
     public MCPHTTPProxy(String serverUrl) {
+        this(serverUrl, new BufferedReader(new InputStreamReader(System.in)),
+            new PrintWriter(System.out, true));
+    }
+
+    MCPHTTPProxy(String serverUrl, BufferedReader stdin, PrintWriter stdout) {
         this.serverUrl = serverUrl;
+        this.sessionId = UUID.randomUUID().toString();
         this.gson = new GsonBuilder().create();
-        this.stdin = new BufferedReader(new InputStreamReader(System.in));
-        this.stdout = new PrintWriter(System.out, true);
+        this.stdin = stdin;
+        this.stdout = stdout;
+        this.workers = Executors.newCachedThreadPool();
+        this.inFlight = new ConcurrentHashMap<>();
     }
 
     public void start() {
@@ -30,24 +59,157 @@ public class MCPHTTPProxy {
             String line;
             while ((line = stdin.readLine()) != null) {
                 System.err.println("← STDIN: " + line);
-                String response = forwardToServer(line);
+                dispatch(line);
+            }
+        } catch (IOException e) {
+            System.err.println("Fehler: " + e.getMessage());
+        } finally {
+            shutdown();
+        }
+    }
+
+    private void shutdown() {
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(RequestContext.MAX_TIMEOUT_MS + READ_TIMEOUT_GRACE_MS,
+                TimeUnit.MILLISECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Nur tools/call läuft parallel; initialize, Notifications und alles andere
+    // werden in Eingabereihenfolge auf dem Lese-Thread weitergeleitet
+    private void dispatch(String request) {
+        JsonObject message = parse(request);
+        String method = stringOrNull(message.get("method"));
+
+        if ("notifications/cancelled".equals(method)) {
+            abort(message.get("params"));
+        }
+
+        JsonElement id = message.has("id") ? message.get("id") : JsonNull.INSTANCE;
+        long timeoutMs = RequestContext.resolveTimeoutMs(OptionalLong.empty(),
+            RequestContext.timeoutFromParams(message.get("params")),
+            RequestContext.DEFAULT_TIMEOUT_MS);
+        Pending pending = new Pending(id, stringOrNull(id), timeoutMs);
+
+        // Vor dem Submit registrieren, damit ein direkt folgendes Cancel den Request findet
+        if (pending.key != null) {
+            inFlight.put(pending.key, pending);
+        }
+        if ("tools/call".equals(method) && pending.key != null) {
+            workers.submit(() -> handleRequest(request, pending));
+        } else {
+            handleRequest(request, pending);
+        }
+    }
+
+    private void handleRequest(String request, Pending pending) {
+        try {
+            String response = forwardToServer(request, pending);
+            if (pending.cancelled) {
+                System.err.println("Request " + pending.key + " abgebrochen.");
+                return;
+            }
+            if (!response.isEmpty()) {
                 System.err.println("→ STDOUT: " + response);
                 stdout.println(response);
             }
         } catch (IOException e) {
-            System.err.println("Fehler: " + e.getMessage());
+            if (pending.cancelled) {
+                System.err.println("Request " + pending.key + " abgebrochen.");
+                return;
+            }
+            boolean timedOut = e instanceof SocketTimeoutException;
+            reportError(pending,
+                timedOut ? MCPResponse.REQUEST_TIMEOUT : MCPResponse.INTERNAL_ERROR,
+                timedOut ? "Zeitüberschreitung der Anfrage" :
+                    "Server nicht erreichbar: " + e.getMessage());
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            reportError(pending, MCPResponse.INTERNAL_ERROR, "Proxy-Fehler: " + e.getMessage());
+        } finally {
+            if (pending.key != null) {
+                inFlight.remove(pending.key, pending);
+            }
+        }
+    }
+
+    private void reportError(Pending pending, int code, String message) {
+        System.err.println("Fehler: " + message);
+        if (!pending.id.isJsonNull()) {
+            String error = errorResponse(pending.id, code, message);
+            System.err.println("→ STDOUT: " + error);
+            stdout.println(error);
+        }
+    }
+
+    // Bricht die lokale Verbindung ab; die Notification selbst geht weiter an den Server
+    private void abort(JsonElement params) {
+        if (params == null || !params.isJsonObject()) {
+            return;
         }
+        String requestId = stringOrNull(params.getAsJsonObject().get("requestId"));
+        Pending pending = requestId != null ? inFlight.get(requestId) : null;
+        if (pending != null) {
+            pending.cancel();
+        }
+    }
+
+    private JsonObject parse(String request) {
+        try {
+            JsonElement element = JsonParser.parseString(request);
+            return element.isJsonObject() ? element.getAsJsonObject() : new JsonObject();
+        } catch (JsonParseException e) {
+            return new JsonObject();
+        }
+    }
+
+    private String stringOrNull(JsonElement element) {
+        return element != null && element.isJsonPrimitive() ? element.getAsString() : null;
     }
 
-    private String forwardToServer(String request) throws IOException {
+    private String errorResponse(JsonElement id, int code, String message) {
+        JsonObject error = new JsonObject();
+        error.addProperty("code", code);
+        error.addProperty("message", message);
+
+        JsonObject response = new JsonObject();
+        response.addProperty("jsonrpc", "2.0");
+        response.add("id", id);
+        response.add("error", error);
+        return gson.toJson(response);
+    }
+
+    private String forwardToServer(String request, Pending pending) throws IOException {
         URL url = new URL(serverUrl);
         HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        pending.connection = conn;
 
         try {
+            if (pending.cancelled) {
+                throw new IOException("Request abgebrochen");
+            }
             conn.setRequestMethod("POST");
             conn.setRequestProperty("Content-Type", "application/json");
+            conn.setRequestProperty(RequestContext.SESSION_HEADER, sessionId);
+            conn.setRequestProperty(RequestContext.TIMEOUT_HEADER,
+                String.valueOf(pending.timeoutMs));
+            conn.setConnectTimeout(CONNECT_TIMEOUT_MS);
+            conn.setReadTimeout((int) (pending.timeoutMs + READ_TIMEOUT_GRACE_MS));
             conn.setDoOutput(true);
 
+            // Ein Timeout beim Verbindungsaufbau ist kein Timeout der Anfrage
+            try {
+                conn.connect();
+            } catch (SocketTimeoutException e) {
+                throw new ConnectException("Verbindungsaufbau: " + e.getMessage());
+            }
+
             // Request senden
             try (OutputStream os = conn.getOutputStream()) {
                 byte[] input = request.getBytes(StandardCharsets.UTF_8);
@@ -58,6 +220,9 @@ public class MCPHTTPProxy {
             int responseCode = conn.getResponseCode();
             InputStream is = responseCode >= 400 ?
                 conn.getErrorStream() : conn.getInputStream();
+            if (is == null) {
+                return "";
+            }
 
             try (BufferedReader br = new BufferedReader(
                 new InputStreamReader(is, StandardCharsets.UTF_8))) {
@@ -73,6 +238,28 @@ public class MCPHTTPProxy {
         }
     }
 
+    private static final class Pending {
+        private final JsonElement id;
+        private final String key;
+        private final long timeoutMs;
+        private volatile HttpURLConnection connection;
+        private volatile boolean cancelled;
+
+        private Pending(JsonElement id, String key, long timeoutMs) {
+            this.id = id;
+            this.key = key;
+            this.timeoutMs = timeoutMs;
+        }
+
+        private void cancel() {
+            cancelled = true;
+            HttpURLConnection conn = connection;
+            if (conn != null) {
+                conn.disconnect();
+            }
+        }
+    }
+
     public static void main(String[] args) {
         String serverUrl = args.length > 0 ?
             args[0] : "http://localhost:3000/mcp";
@@ -2,6 +2,10 @@
 package com.example.mcp;
 
 public class MCPResponse {
+    public static final int INTERNAL_ERROR = -32603;
+    public static final int REQUEST_TIMEOUT = -32001;
+    public static final int REQUEST_CANCELLED = -32800;
+
     private String jsonrpc = "2.0";
     private Object result;
     private Object error;
@@ -13,8 +17,12 @@ public class MCPResponse {
     }
 
     public MCPResponse(String id, String errorMessage) {
+        this(id, INTERNAL_ERROR, errorMessage);
+    }
+
+    public MCPResponse(String id, int errorCode, String errorMessage) {
         this.id = id;
-        this.error = new ErrorObject(-32603, errorMessage);
+        this.error = new ErrorObject(errorCode, errorMessage);
     }
 
     // Getters
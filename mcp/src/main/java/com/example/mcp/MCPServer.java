@@ -3,7 +3,9 @@ package com.example.mcp;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 
 import java.io.*;
 import java.util.*;
@@ -11,12 +13,14 @@ import java.util.concurrent.ConcurrentHashMap;
 
 public class MCPServer {
     private final Map<String, UseCase> useCases;
+    private final UseCaseExecutor useCaseExecutor;
     private final Gson gson;
     private final BufferedReader reader;
     private final PrintWriter writer;
 
     public MCPServer() {
         this.useCases = new ConcurrentHashMap<>();
+        this.useCaseExecutor = new UseCaseExecutor(System.err);
         this.gson = new GsonBuilder().setPrettyPrinting().create();
         this.reader = new BufferedReader(new InputStreamReader(System.in));
         this.writer = new PrintWriter(System.out, true);
@@ -46,13 +50,23 @@ public class MCPServer {
             }
         } catch (IOException e) {
             System.err.println("Fehler beim Lesen der Eingabe: " + e.getMessage());
+        } finally {
+            useCaseExecutor.shutdown();
         }
     }
 
     private void handleRequest(String requestJson) {
         try {
             MCPRequest request = gson.fromJson(requestJson, MCPRequest.class);
-            MCPResponse response = processRequest(request);
+            // Notifications erhalten keine Antwort
+            if ("notifications/cancelled".equals(request.getMethod())) {
+                handleCancelled(requestJson);
+                return;
+            }
+
+            RequestContext context = RequestContext.of(null, request.getId(),
+                gson.toJsonTree(request.getParams()), null, RequestContext.DEFAULT_TIMEOUT_MS);
+            MCPResponse response = processRequest(request, context);
             writer.println(gson.toJson(response));
         } catch (Exception e) {
             System.err.println("Fehler bei der Verarbeitung: " + e.getMessage());
@@ -62,13 +76,25 @@ public class MCPServer {
         }
     }
 
-    private MCPResponse processRequest(MCPRequest request) {
+    // Auf dem Rohtext parsen, damit numerische IDs nicht als Double ankommen
+    private void handleCancelled(String notificationJson) {
+        JsonObject notification = JsonParser.parseString(notificationJson).getAsJsonObject();
+        JsonElement params = notification.get("params");
+        JsonElement requestId = params != null && params.isJsonObject() ?
+            params.getAsJsonObject().get("requestId") : null;
+        if (requestId != null && requestId.isJsonPrimitive()) {
+            useCaseExecutor.cancel(RequestContext.key(null, requestId.getAsString()),
+                "vom Client abgebrochen");
+        }
+    }
+
+    private MCPResponse processRequest(MCPRequest request, RequestContext context) {
         String method = request.getMethod();
         String requestId = request.getId();
 
         return switch (method) {
             case "tools/list" -> handleListTools(requestId);
-            case "tools/call" -> handleToolCall(requestId, request.getParams());
+            case "tools/call" -> handleToolCall(requestId, request.getParams(), context);
             case "initialize" -> handleInitialize(requestId);
             default -> new MCPResponse(requestId, "Unbekannte Methode: " + method);
         };
@@ -120,7 +146,8 @@ public class MCPServer {
         return new MCPResponse(requestId, Map.of("tools", tools));
     }
 
-    private MCPResponse handleToolCall(String requestId, Object params) {
+    private MCPResponse handleToolCall(String requestId, Object params,
+                                       RequestContext context) {
         JsonObject paramsObj = gson.toJsonTree(params).getAsJsonObject();
         String toolName = paramsObj.get("name").getAsString();
         JsonObject arguments = paramsObj.has("arguments") ?
@@ -128,7 +155,7 @@ public class MCPServer {
 
         return switch (toolName) {
             case "list_use_cases" -> listUseCases(requestId);
-            case "start_use_case" -> startUseCase(requestId, arguments);
+            case "start_use_case" -> startUseCase(requestId, arguments, context);
             default -> new MCPResponse(requestId, "Unbekanntes Tool: " + toolName);
         };
     }
@@ -159,7 +186,8 @@ public class MCPServer {
         ));
     }
 
-    private MCPResponse startUseCase(String requestId, JsonObject arguments) {
+    private MCPResponse startUseCase(String requestId, JsonObject arguments,
+                                     RequestContext context) {
         String useCaseId = arguments.get("useCaseId").getAsString();
         UseCase useCase = useCases.get(useCaseId);
 
@@ -168,8 +196,13 @@ public class MCPServer {
                 "Use Case mit ID '" + useCaseId + "' nicht gefunden");
         }
 
-        // Use Case "ausführen" (Simulation)
-        useCase.setStatus("LÄUFT");
+        // Use Case "ausführen" (Simulation), nur wenn die Deadline dafür reicht
+        if (!useCaseExecutor.start(useCase, context)) {
+            return context.isCancelled() ?
+                new MCPResponse(requestId, MCPResponse.REQUEST_CANCELLED, "Anfrage abgebrochen") :
+                new MCPResponse(requestId, MCPResponse.REQUEST_TIMEOUT,
+                    "Deadline reicht für Use Case '" + useCaseId + "' nicht aus");
+        }
         String result = String.format("✓ Use Case '%s' wurde gestartet!\n\n" +
                 "Details:\n" +
                 "- ID: %s\n" +
@@ -180,17 +213,6 @@ public class MCPServer {
             useCase.getName(), useCase.getId(), useCase.getName(),
             useCase.getDescription(), useCase.getStatus());
 
-        // Nach einer simulierten Ausführung Status ändern
-        new Thread(() -> {
-            try {
-                Thread.sleep(2000);
-                useCase.setStatus("ABGESCHLOSSEN");
-                System.err.println("Use Case " + useCaseId + " abgeschlossen.");
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }).start();
-
         return new MCPResponse(requestId, Map.of(
             "content", List.of(Map.of(
                 "type", "text",
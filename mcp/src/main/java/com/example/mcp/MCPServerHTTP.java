@@ -3,7 +3,9 @@ package com.example.mcp;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
@@ -12,18 +14,29 @@ import java.io.*;
 import java.net.InetSocketAddress;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class MCPServerHTTP {
     private final int port;
     private final Map<String, UseCase> useCases;
+    private final Map<String, InFlight> inFlight;
+    private final UseCaseExecutor useCaseExecutor;
     private final Gson gson;
     private HttpServer server;
+    private ExecutorService dispatcher;
 
     public MCPServerHTTP(int port) {
         this.port = port;
         this.useCases = new ConcurrentHashMap<>();
+        this.inFlight = new ConcurrentHashMap<>();
+        this.useCaseExecutor = new UseCaseExecutor(System.out);
         this.gson = new GsonBuilder().setPrettyPrinting().create();
         initializeUseCases();
     }
@@ -44,6 +57,7 @@ public class MCPServerHTTP {
         server.createContext("/mcp", new MCPHandler());
         server.createContext("/health", new HealthHandler());
         server.setExecutor(Executors.newCachedThreadPool());
+        dispatcher = Executors.newCachedThreadPool();
         server.start();
 
         System.out.println("✓ MCP HTTP Server läuft auf Port " + port);
@@ -54,6 +68,8 @@ public class MCPServerHTTP {
     public void stop() {
         if (server != null) {
             server.stop(0);
+            dispatcher.shutdownNow();
+            useCaseExecutor.shutdown();
             System.out.println("Server beendet.");
         }
     }
@@ -72,7 +88,9 @@ public class MCPServerHTTP {
             // CORS Headers
             exchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
             exchange.getResponseHeaders().add("Access-Control-Allow-Methods", "POST, OPTIONS");
-            exchange.getResponseHeaders().add("Access-Control-Allow-Headers", "Content-Type");
+            exchange.getResponseHeaders().add("Access-Control-Allow-Headers",
+                "Content-Type, " + RequestContext.TIMEOUT_HEADER + ", " +
+                    RequestContext.SESSION_HEADER);
 
             if ("OPTIONS".equals(exchange.getRequestMethod())) {
                 exchange.sendResponseHeaders(204, -1);
@@ -90,7 +108,18 @@ public class MCPServerHTTP {
                 System.out.println("← Request: " + requestBody);
 
                 MCPRequest request = gson.fromJson(requestBody, MCPRequest.class);
-                MCPResponse response = processRequest(request);
+                if ("notifications/cancelled".equals(request.getMethod())) {
+                    handleCancelled(scopeOf(exchange), requestBody);
+                    exchange.sendResponseHeaders(202, -1);
+                    exchange.close();
+                    return;
+                }
+
+                RequestContext context = RequestContext.of(scopeOf(exchange), request.getId(),
+                    gson.toJsonTree(request.getParams()),
+                    exchange.getRequestHeaders().getFirst(RequestContext.TIMEOUT_HEADER),
+                    RequestContext.DEFAULT_TIMEOUT_MS);
+                MCPResponse response = dispatch(request, context);
 
                 String responseJson = gson.toJson(response);
                 System.out.println("→ Response: " + responseJson);
@@ -128,13 +157,74 @@ public class MCPServerHTTP {
         }
     }
 
-    private MCPResponse processRequest(MCPRequest request) {
+    // Ohne Session-Header teilen sich alle Clients einer Adresse einen ID-Raum
+    private String scopeOf(HttpExchange exchange) {
+        String sessionId = exchange.getRequestHeaders().getFirst(RequestContext.SESSION_HEADER);
+        return sessionId != null ?
+            sessionId : exchange.getRemoteAddress().getAddress().getHostAddress();
+    }
+
+    // Verarbeitung mit Deadline; der Handler-Thread wartet höchstens bis dahin
+    private MCPResponse dispatch(MCPRequest request, RequestContext context)
+        throws Exception {
+        String requestId = request.getId();
+        if (context.isExpired()) {
+            return new MCPResponse(requestId, MCPResponse.REQUEST_TIMEOUT,
+                "Zeitüberschreitung der Anfrage");
+        }
+
+        FutureTask<MCPResponse> future = new FutureTask<>(() -> processRequest(request, context));
+        InFlight entry = new InFlight(context, future);
+        // Vor dem Start registrieren, damit ein direkt folgendes Cancel die Anfrage findet
+        if (requestId != null) {
+            inFlight.put(context.getKey(), entry);
+        }
+        dispatcher.execute(future);
+
+        try {
+            return future.get(context.remainingMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            context.cancel();
+            return new MCPResponse(requestId, MCPResponse.REQUEST_TIMEOUT,
+                "Zeitüberschreitung der Anfrage");
+        } catch (CancellationException e) {
+            context.cancel();
+            return new MCPResponse(requestId, MCPResponse.REQUEST_CANCELLED,
+                "Anfrage abgebrochen");
+        } finally {
+            if (requestId != null) {
+                inFlight.remove(context.getKey(), entry);
+            }
+        }
+    }
+
+    // Auf dem Rohtext parsen, damit numerische IDs nicht als Double ankommen
+    private void handleCancelled(String scope, String notificationJson) {
+        JsonObject notification = JsonParser.parseString(notificationJson).getAsJsonObject();
+        JsonElement params = notification.get("params");
+        JsonElement requestId = params != null && params.isJsonObject() ?
+            params.getAsJsonObject().get("requestId") : null;
+        if (requestId == null || !requestId.isJsonPrimitive()) {
+            return;
+        }
+
+        String key = RequestContext.key(scope, requestId.getAsString());
+        InFlight entry = inFlight.remove(key);
+        if (entry != null) {
+            entry.context().cancel();
+            entry.future().cancel(true);
+        }
+        useCaseExecutor.cancel(key, "vom Client abgebrochen");
+    }
+
+    private MCPResponse processRequest(MCPRequest request, RequestContext context) {
         String method = request.getMethod();
         String requestId = request.getId();
 
         return switch (method) {
             case "tools/list" -> handleListTools(requestId);
-            case "tools/call" -> handleToolCall(requestId, request.getParams());
+            case "tools/call" -> handleToolCall(requestId, request.getParams(), context);
             case "initialize" -> handleInitialize(requestId);
             default -> new MCPResponse(requestId, "Unbekannte Methode: " + method);
         };
@@ -184,7 +274,8 @@ public class MCPServerHTTP {
         return new MCPResponse(requestId, Map.of("tools", tools));
     }
 
-    private MCPResponse handleToolCall(String requestId, Object params) {
+    private MCPResponse handleToolCall(String requestId, Object params,
+                                       RequestContext context) {
         JsonObject paramsObj = gson.toJsonTree(params).getAsJsonObject();
         String toolName = paramsObj.get("name").getAsString();
         JsonObject arguments = paramsObj.has("arguments") ?
@@ -192,7 +283,7 @@ public class MCPServerHTTP {
 
         return switch (toolName) {
             case "list_use_cases" -> listUseCases(requestId);
-            case "start_use_case" -> startUseCase(requestId, arguments);
+            case "start_use_case" -> startUseCase(requestId, arguments, context);
             default -> new MCPResponse(requestId, "Unbekanntes Tool: " + toolName);
         };
     }
@@ -224,7 +315,8 @@ public class MCPServerHTTP {
         ));
     }
 
-    private MCPResponse startUseCase(String requestId, JsonObject arguments) {
+    private MCPResponse startUseCase(String requestId, JsonObject arguments,
+                                     RequestContext context) {
         String useCaseId = arguments.get("useCaseId").getAsString();
         UseCase useCase = useCases.get(useCaseId);
 
@@ -233,7 +325,12 @@ public class MCPServerHTTP {
                 "Use Case mit ID '" + useCaseId + "' nicht gefunden");
         }
 
-        useCase.setStatus("LÄUFT");
+        if (!useCaseExecutor.start(useCase, context)) {
+            return context.isCancelled() ?
+                new MCPResponse(requestId, MCPResponse.REQUEST_CANCELLED, "Anfrage abgebrochen") :
+                new MCPResponse(requestId, MCPResponse.REQUEST_TIMEOUT,
+                    "Deadline reicht für Use Case '" + useCaseId + "' nicht aus");
+        }
         String result = String.format("✓ Use Case '%s' wurde gestartet!\n\n" +
                 "Details:\n" +
                 "- ID: %s\n" +
@@ -244,16 +341,6 @@ public class MCPServerHTTP {
             useCase.getName(), useCase.getId(), useCase.getName(),
             useCase.getDescription(), useCase.getStatus());
 
-        new Thread(() -> {
-            try {
-                Thread.sleep(2000);
-                useCase.setStatus("ABGESCHLOSSEN");
-                System.out.println("✓ Use Case " + useCaseId + " abgeschlossen.");
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }).start();
-
         return new MCPResponse(requestId, Map.of(
             "content", List.of(Map.of(
                 "type", "text",
@@ -262,6 +349,8 @@ public class MCPServerHTTP {
         ));
     }
 
+    private record InFlight(RequestContext context, Future<MCPResponse> future) {}
+
     public static void main(String[] args) {
         int port = args.length > 0 ? Integer.parseInt(args[0]) : 3000;
         MCPServerHTTP server = new MCPServerHTTP(port);
@@ -0,0 +1,108 @@
+// RequestContext.java
+package com.example.mcp;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.math.BigDecimal;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+public class RequestContext {
+    // Verbleibende Zeit in Millisekunden, vom Proxy an den Server weitergereicht
+    public static final String TIMEOUT_HEADER = "X-Request-Timeout-Ms";
+    // Trennt die ID-Räume mehrerer Clients, die alle ab 1 zählen
+    public static final String SESSION_HEADER = "Mcp-Session-Id";
+    public static final long DEFAULT_TIMEOUT_MS = 30000;
+    public static final long MAX_TIMEOUT_MS = 300000;
+
+    private final String scope;
+    private final String requestId;
+    private final long deadlineNanos;
+    private volatile boolean cancelled;
+
+    public RequestContext(String scope, String requestId, long timeoutMs) {
+        this.scope = scope;
+        this.requestId = requestId;
+        this.deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+    }
+
+    public static RequestContext of(String scope, String requestId, JsonElement params,
+                                    String headerValue, long defaultTimeoutMs) {
+        return new RequestContext(scope, requestId, resolveTimeoutMs(
+            timeoutFromHeader(headerValue), timeoutFromParams(params), defaultTimeoutMs));
+    }
+
+    // Kleinster angegebene Timeout, sonst der Default; begrenzt auf [0, MAX_TIMEOUT_MS]
+    public static long resolveTimeoutMs(OptionalLong header, OptionalLong meta,
+                                        long defaultTimeoutMs) {
+        long timeoutMs = defaultTimeoutMs;
+        if (header.isPresent() && meta.isPresent()) {
+            timeoutMs = Math.min(header.getAsLong(), meta.getAsLong());
+        } else if (header.isPresent()) {
+            timeoutMs = header.getAsLong();
+        } else if (meta.isPresent()) {
+            timeoutMs = meta.getAsLong();
+        }
+        return Math.max(0, Math.min(timeoutMs, MAX_TIMEOUT_MS));
+    }
+
+    public static OptionalLong timeoutFromHeader(String headerValue) {
+        if (headerValue == null) {
+            return OptionalLong.empty();
+        }
+        try {
+            return toTimeout(new BigDecimal(headerValue.trim()));
+        } catch (NumberFormatException e) {
+            System.err.println("Ungültiger " + TIMEOUT_HEADER + ": " + headerValue);
+            return OptionalLong.empty();
+        }
+    }
+
+    public static OptionalLong timeoutFromParams(JsonElement params) {
+        if (params == null || !params.isJsonObject()) {
+            return OptionalLong.empty();
+        }
+        JsonObject paramsObj = params.getAsJsonObject();
+        if (!paramsObj.has("_meta") || !paramsObj.get("_meta").isJsonObject()) {
+            return OptionalLong.empty();
+        }
+        JsonElement timeout = paramsObj.getAsJsonObject("_meta").get("timeoutMs");
+        if (timeout == null || !timeout.isJsonPrimitive()
+            || !timeout.getAsJsonPrimitive().isNumber()) {
+            return OptionalLong.empty();
+        }
+        try {
+            return toTimeout(timeout.getAsBigDecimal());
+        } catch (NumberFormatException e) {
+            return OptionalLong.empty();
+        }
+    }
+
+    // Negative Werte gelten als nicht angegeben, zu große werden gekappt
+    private static OptionalLong toTimeout(BigDecimal value) {
+        if (value.signum() < 0) {
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of(value.min(BigDecimal.valueOf(MAX_TIMEOUT_MS)).longValue());
+    }
+
+    public static String key(String scope, String requestId) {
+        return scope == null ? requestId : scope + "/" + requestId;
+    }
+
+    public String getScope() { return scope; }
+    public String getRequestId() { return requestId; }
+    public String getKey() { return key(scope, requestId); }
+
+    public long remainingMillis() {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+    }
+
+    public boolean isExpired() {
+        return cancelled || deadlineNanos - System.nanoTime() <= 0;
+    }
+
+    public boolean isCancelled() { return cancelled; }
+    public void cancel() { this.cancelled = true; }
+}
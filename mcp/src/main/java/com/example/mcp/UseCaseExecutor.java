@@ -0,0 +1,118 @@
+// UseCaseExecutor.java
+package com.example.mcp;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class UseCaseExecutor {
+    private static final long EXECUTION_MILLIS = 2000;
+
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, Execution> running;
+    private final PrintStream log;
+    private final long executionMillis;
+
+    public UseCaseExecutor(PrintStream log) {
+        this(log, EXECUTION_MILLIS);
+    }
+
+    UseCaseExecutor(PrintStream log, long executionMillis) {
+        this.scheduler = Executors.newScheduledThreadPool(1, runnable -> {
+            Thread thread = new Thread(runnable, "use-case-executor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.running = new ConcurrentHashMap<>();
+        this.log = log;
+        this.executionMillis = executionMillis;
+    }
+
+    // Simulierte Ausführung. Liefert false, wenn der Request abgebrochen ist oder
+    // die verbleibende Deadline für die Laufzeit nicht reicht.
+    public boolean start(UseCase useCase, RequestContext context) {
+        if (context.isCancelled() || context.remainingMillis() < executionMillis) {
+            return false;
+        }
+
+        // Ohne Request-ID ist kein Cancel möglich, der Lauf wird nicht registriert
+        String key = context.getRequestId() != null ? context.getKey() : null;
+        Execution execution = new Execution(useCase);
+        if (key != null) {
+            Execution previous = running.put(key, execution);
+            if (previous != null) {
+                abort(key, previous, "durch neuen Request mit gleicher ID ersetzt");
+            }
+        }
+
+        useCase.setStatus("LÄUFT");
+        // Ein Cancel zwischen put und setStatus darf nicht von LÄUFT überschrieben werden
+        if (execution.aborted) {
+            useCase.setStatus("ABGEBROCHEN");
+            return false;
+        }
+        execution.completion = scheduler.schedule(() -> complete(key, execution),
+            executionMillis, TimeUnit.MILLISECONDS);
+
+        if (context.isCancelled()) {
+            abort(key, execution, "vom Client abgebrochen");
+        }
+        return !execution.aborted;
+    }
+
+    public boolean cancel(String key, String reason) {
+        if (key == null) {
+            return false;
+        }
+        Execution execution = running.get(key);
+        return execution != null && abort(key, execution, reason);
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void complete(String key, Execution execution) {
+        if (!execution.finished.compareAndSet(false, true)) {
+            return;
+        }
+        if (key != null) {
+            running.remove(key, execution);
+        }
+        execution.useCase.setStatus("ABGESCHLOSSEN");
+        log.println("✓ Use Case " + execution.useCase.getId() + " abgeschlossen.");
+    }
+
+    private boolean abort(String key, Execution execution, String reason) {
+        if (!execution.finished.compareAndSet(false, true)) {
+            return false;
+        }
+        execution.aborted = true;
+        if (key != null) {
+            running.remove(key, execution);
+        }
+        ScheduledFuture<?> completion = execution.completion;
+        if (completion != null) {
+            completion.cancel(false);
+        }
+        execution.useCase.setStatus("ABGEBROCHEN");
+        log.println("✗ Use Case " + execution.useCase.getId() + " abgebrochen: " + reason);
+        return true;
+    }
+
+    private static final class Execution {
+        private final UseCase useCase;
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private volatile boolean aborted;
+        private volatile ScheduledFuture<?> completion;
+
+        private Execution(UseCase useCase) {
+            this.useCase = useCase;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+// MCPHTTPProxyTest.java
+package com.example.mcp;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MCPHTTPProxyTest {
+    private static final long STUB_DELAY_MILLIS = 3000;
+
+    private final List<String> received = new CopyOnWriteArrayList<>();
+    private final List<String> sessions = new CopyOnWriteArrayList<>();
+    private HttpServer stub;
+    private ExecutorService stubExecutor;
+
+    @AfterEach
+    void stopStub() {
+        if (stub != null) {
+            stub.stop(0);
+            stubExecutor.shutdownNow();
+        }
+    }
+
+    // Antwortet auf Notifications sofort, auf alles andere erst nach STUB_DELAY_MILLIS
+    private String startSlowStub() throws IOException {
+        stub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        stubExecutor = Executors.newCachedThreadPool();
+        stub.setExecutor(stubExecutor);
+        stub.createContext("/mcp", this::handleStub);
+        stub.start();
+        return "http://localhost:" + stub.getAddress().getPort() + "/mcp";
+    }
+
+    private void handleStub(HttpExchange exchange) throws IOException {
+        String body = new String(exchange.getRequestBody().readAllBytes(),
+            StandardCharsets.UTF_8);
+        received.add(body);
+        sessions.add(exchange.getRequestHeaders().getFirst(RequestContext.SESSION_HEADER));
+        if (body.contains("notifications/")) {
+            exchange.sendResponseHeaders(202, -1);
+            exchange.close();
+            return;
+        }
+
+        try {
+            Thread.sleep(STUB_DELAY_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        exchange.close();
+    }
+
+    private static List<String> run(String serverUrl, String... lines) {
+        StringWriter output = new StringWriter();
+        MCPHTTPProxy proxy = new MCPHTTPProxy(serverUrl,
+            new BufferedReader(new StringReader(String.join("\n", lines))),
+            new PrintWriter(output, true));
+        proxy.start();
+        return output.toString().lines().toList();
+    }
+
+    private static JsonObject error(String line) {
+        return JsonParser.parseString(line).getAsJsonObject().getAsJsonObject("error");
+    }
+
+    @Test
+    void unreachableServerYieldsErrorForId() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+
+        List<String> output = run("http://localhost:" + port + "/mcp",
+            "{\"jsonrpc\":\"2.0\",\"id\":4,\"method\":\"tools/list\"}");
+
+        assertEquals(1, output.size());
+        JsonObject response = JsonParser.parseString(output.get(0)).getAsJsonObject();
+        assertEquals(4, response.get("id").getAsInt());
+        assertEquals(MCPResponse.INTERNAL_ERROR, error(output.get(0)).get("code").getAsInt());
+        assertTrue(error(output.get(0)).get("message").getAsString()
+            .contains("nicht erreichbar"));
+    }
+
+    @Test
+    void slowServerYieldsTimeoutAfterDeadline() throws IOException {
+        String url = startSlowStub();
+
+        List<String> output = run(url,
+            "{\"jsonrpc\":\"2.0\",\"id\":5,\"method\":\"tools/call\","
+                + "\"params\":{\"name\":\"list_use_cases\",\"_meta\":{\"timeoutMs\":100}}}");
+
+        assertEquals(1, output.size());
+        assertEquals(MCPResponse.REQUEST_TIMEOUT, error(output.get(0)).get("code").getAsInt());
+    }
+
+    @Test
+    void cancelledRequestGetsNoResponseAndCancelIsForwarded() throws IOException {
+        String url = startSlowStub();
+
+        List<String> output = run(url,
+            "{\"jsonrpc\":\"2.0\",\"id\":7,\"method\":\"tools/call\","
+                + "\"params\":{\"name\":\"start_use_case\",\"arguments\":{\"useCaseId\":\"uc1\"}}}",
+            "{\"jsonrpc\":\"2.0\",\"method\":\"notifications/cancelled\","
+                + "\"params\":{\"requestId\":7}}");
+
+        assertEquals(List.of(), output);
+        assertTrue(received.stream().anyMatch(body -> body.contains("notifications/cancelled")));
+        assertTrue(sessions.stream().allMatch(session -> session != null && !session.isEmpty()));
+    }
+}
@@ -0,0 +1,110 @@
+// MCPServerHTTPTest.java
+package com.example.mcp;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MCPServerHTTPTest {
+    private final HttpClient client = HttpClient.newHttpClient();
+    private MCPServerHTTP server;
+    private URI endpoint;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        server = new MCPServerHTTP(port);
+        server.start();
+        endpoint = URI.create("http://localhost:" + port + "/mcp");
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop();
+    }
+
+    private HttpResponse<String> post(String session, String timeoutHeader, String body)
+        throws Exception {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(endpoint)
+            .header("Content-Type", "application/json")
+            .header(RequestContext.SESSION_HEADER, session)
+            .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (timeoutHeader != null) {
+            builder.header(RequestContext.TIMEOUT_HEADER, timeoutHeader);
+        }
+        return client.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static JsonObject json(HttpResponse<String> response) {
+        return JsonParser.parseString(response.body()).getAsJsonObject();
+    }
+
+    private static String startUseCase(String id, String useCaseId, String meta) {
+        return "{\"jsonrpc\":\"2.0\",\"id\":\"" + id + "\",\"method\":\"tools/call\","
+            + "\"params\":{\"name\":\"start_use_case\",\"arguments\":{\"useCaseId\":\""
+            + useCaseId + "\"}" + (meta != null ? ",\"_meta\":" + meta : "") + "}}";
+    }
+
+    private String statusOf(String session, String useCaseId) throws Exception {
+        JsonObject response = json(post(session, null,
+            "{\"jsonrpc\":\"2.0\",\"id\":\"99\",\"method\":\"tools/call\","
+                + "\"params\":{\"name\":\"list_use_cases\"}}"));
+        String text = response.getAsJsonObject("result").getAsJsonArray("content")
+            .get(0).getAsJsonObject().get("text").getAsString();
+        Matcher matcher = Pattern.compile("\\[" + useCaseId + "\\].*\\n\\s+Status: (\\S+)")
+            .matcher(text);
+        assertTrue(matcher.find(), text);
+        return matcher.group(1);
+    }
+
+    @Test
+    void expiredHeaderDeadlineIsAnsweredWithTimeout() throws Exception {
+        HttpResponse<String> response = post("A", "0",
+            "{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"tools/list\"}");
+
+        assertEquals(200, response.statusCode());
+        assertEquals(MCPResponse.REQUEST_TIMEOUT,
+            json(response).getAsJsonObject("error").get("code").getAsInt());
+    }
+
+    @Test
+    void deadlineShorterThanRunTimeIsRejected() throws Exception {
+        JsonObject response = json(post("A", null,
+            startUseCase("1", "uc1", "{\"timeoutMs\":300}")));
+
+        assertEquals(MCPResponse.REQUEST_TIMEOUT,
+            response.getAsJsonObject("error").get("code").getAsInt());
+        assertEquals("BEREIT", statusOf("A", "uc1"));
+    }
+
+    @Test
+    void cancelOnlyAffectsOwnSession() throws Exception {
+        assertTrue(json(post("A", null, startUseCase("1", "uc1", null))).has("result"));
+        assertTrue(json(post("B", null, startUseCase("1", "uc2", null))).has("result"));
+
+        HttpResponse<String> cancel = post("B", null,
+            "{\"jsonrpc\":\"2.0\",\"method\":\"notifications/cancelled\","
+                + "\"params\":{\"requestId\":1}}");
+        assertEquals(202, cancel.statusCode());
+        assertEquals("", cancel.body());
+
+        assertEquals("LÄUFT", statusOf("A", "uc1"));
+        assertEquals("ABGEBROCHEN", statusOf("A", "uc2"));
+    }
+}
@@ -0,0 +1,84 @@
+// RequestContextTest.java
+package com.example.mcp;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestContextTest {
+
+    private static JsonElement params(String timeoutMs) {
+        return JsonParser.parseString("{\"name\":\"start_use_case\",\"_meta\":{\"timeoutMs\":"
+            + timeoutMs + "}}");
+    }
+
+    @Test
+    void usesSmallerOfHeaderAndMeta() {
+        assertEquals(500, RequestContext.resolveTimeoutMs(
+            OptionalLong.of(2000), OptionalLong.of(500), 30000));
+        assertEquals(500, RequestContext.resolveTimeoutMs(
+            OptionalLong.of(500), OptionalLong.of(2000), 30000));
+        assertEquals(2000, RequestContext.resolveTimeoutMs(
+            OptionalLong.empty(), OptionalLong.of(2000), 30000));
+        assertEquals(30000, RequestContext.resolveTimeoutMs(
+            OptionalLong.empty(), OptionalLong.empty(), 30000));
+    }
+
+    @Test
+    void treatsAllNegativeValuesAsAbsent() {
+        assertEquals(OptionalLong.empty(), RequestContext.timeoutFromHeader("-1"));
+        assertEquals(OptionalLong.empty(), RequestContext.timeoutFromHeader("-2"));
+        assertEquals(OptionalLong.empty(), RequestContext.timeoutFromParams(params("-1")));
+        assertEquals(OptionalLong.empty(), RequestContext.timeoutFromParams(params("-2000")));
+
+        RequestContext context = RequestContext.of(null, "1", params("-2000"), "-2", 30000);
+        assertFalse(context.isExpired());
+        assertTrue(context.remainingMillis() > 29000);
+    }
+
+    @Test
+    void capsLargeValues() {
+        assertEquals(OptionalLong.of(RequestContext.MAX_TIMEOUT_MS),
+            RequestContext.timeoutFromHeader("9223372036854775000"));
+        assertEquals(OptionalLong.of(RequestContext.MAX_TIMEOUT_MS),
+            RequestContext.timeoutFromParams(params("9223372036854775000")));
+        assertEquals(OptionalLong.of(RequestContext.MAX_TIMEOUT_MS),
+            RequestContext.timeoutFromParams(params("1e30")));
+        assertEquals(RequestContext.MAX_TIMEOUT_MS, RequestContext.resolveTimeoutMs(
+            OptionalLong.empty(), OptionalLong.empty(), Long.MAX_VALUE));
+    }
+
+    @Test
+    void ignoresInvalidValues() {
+        assertEquals(OptionalLong.empty(), RequestContext.timeoutFromHeader("abc"));
+        assertEquals(OptionalLong.empty(), RequestContext.timeoutFromParams(params("\"500\"")));
+        assertEquals(OptionalLong.empty(), RequestContext.timeoutFromParams(null));
+    }
+
+    @Test
+    void zeroTimeoutIsExpired() {
+        RequestContext context = RequestContext.of(null, "1", params("0"), null, 30000);
+        assertTrue(context.isExpired());
+        assertEquals(0, context.remainingMillis());
+    }
+
+    @Test
+    void keyIsScopedPerSession() {
+        assertEquals("1", RequestContext.key(null, "1"));
+        assertNotEquals(RequestContext.key("a", "1"), RequestContext.key("b", "1"));
+        assertEquals(RequestContext.key("a", "1"),
+            new RequestContext("a", "1", 1000).getKey());
+    }
+
+    @Test
+    void cancelMarksContextExpired() {
+        RequestContext context = new RequestContext(null, "1", 30000);
+        context.cancel();
+        assertTrue(context.isCancelled());
+        assertTrue(context.isExpired());
+    }
+}
@@ -0,0 +1,113 @@
+// UseCaseExecutorTest.java
+package com.example.mcp;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UseCaseExecutorTest {
+    private static final long EXECUTION_MILLIS = 200;
+    private static final long SETTLE_MILLIS = 600;
+
+    private final UseCaseExecutor executor = new UseCaseExecutor(
+        new PrintStream(OutputStream.nullOutputStream()), EXECUTION_MILLIS);
+    private final UseCase uc1 = new UseCase("uc1", "Eins", "Erster Use Case");
+    private final UseCase uc2 = new UseCase("uc2", "Zwei", "Zweiter Use Case");
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void completesWithinDeadline() throws InterruptedException {
+        assertTrue(executor.start(uc1, new RequestContext(null, "1", 30000)));
+        assertEquals("LÄUFT", uc1.getStatus());
+
+        Thread.sleep(SETTLE_MILLIS);
+        assertEquals("ABGESCHLOSSEN", uc1.getStatus());
+    }
+
+    @Test
+    void rejectsDeadlineShorterThanRunTime() throws InterruptedException {
+        assertFalse(executor.start(uc1, new RequestContext(null, "1", EXECUTION_MILLIS / 2)));
+        assertEquals("BEREIT", uc1.getStatus());
+
+        Thread.sleep(SETTLE_MILLIS);
+        assertEquals("BEREIT", uc1.getStatus());
+    }
+
+    @Test
+    void sameIdInDifferentSessionsDoesNotInterfere() throws InterruptedException {
+        assertTrue(executor.start(uc1, new RequestContext("a", "1", 30000)));
+        assertTrue(executor.start(uc2, new RequestContext("b", "1", 30000)));
+
+        Thread.sleep(SETTLE_MILLIS);
+        assertEquals("ABGESCHLOSSEN", uc1.getStatus());
+        assertEquals("ABGESCHLOSSEN", uc2.getStatus());
+    }
+
+    @Test
+    void reusedIdReplacesEarlierExecutionOnly() throws InterruptedException {
+        assertTrue(executor.start(uc1, new RequestContext(null, "1", 30000)));
+        assertTrue(executor.start(uc2, new RequestContext(null, "1", 30000)));
+        assertEquals("ABGEBROCHEN", uc1.getStatus());
+        assertEquals("LÄUFT", uc2.getStatus());
+
+        // Der ersetzte Lauf darf den neuen nicht aus der Verwaltung austragen
+        assertTrue(executor.cancel("1", "Test"));
+        assertEquals("ABGEBROCHEN", uc2.getStatus());
+    }
+
+    @Test
+    void runsWithoutIdDoNotShareKeysWithRequestIds() throws InterruptedException {
+        assertTrue(executor.start(uc1, new RequestContext(null, null, 30000)));
+        assertTrue(executor.start(uc2, new RequestContext(null, "uc1", 30000)));
+        assertEquals("LÄUFT", uc1.getStatus());
+
+        assertTrue(executor.cancel("uc1", "Test"));
+        assertEquals("ABGEBROCHEN", uc2.getStatus());
+
+        Thread.sleep(SETTLE_MILLIS);
+        assertEquals("ABGESCHLOSSEN", uc1.getStatus());
+    }
+
+    @Test
+    void cancelIsScopedToKey() throws InterruptedException {
+        assertTrue(executor.start(uc1, new RequestContext("a", "1", 30000)));
+        assertTrue(executor.start(uc2, new RequestContext("b", "1", 30000)));
+
+        assertTrue(executor.cancel(RequestContext.key("b", "1"), "Test"));
+        assertEquals("LÄUFT", uc1.getStatus());
+        assertEquals("ABGEBROCHEN", uc2.getStatus());
+
+        Thread.sleep(SETTLE_MILLIS);
+        assertEquals("ABGESCHLOSSEN", uc1.getStatus());
+        assertEquals("ABGEBROCHEN", uc2.getStatus());
+    }
+
+    @Test
+    void cancelAfterCompletionHasNoEffect() throws InterruptedException {
+        assertTrue(executor.start(uc1, new RequestContext(null, "1", 30000)));
+        Thread.sleep(SETTLE_MILLIS);
+
+        assertFalse(executor.cancel("1", "Test"));
+        assertEquals("ABGESCHLOSSEN", uc1.getStatus());
+    }
+
+    @Test
+    void startReportsAlreadyCancelledContext() throws InterruptedException {
+        RequestContext context = new RequestContext(null, "1", 30000);
+        context.cancel();
+
+        assertFalse(executor.start(uc1, context));
+        assertEquals("BEREIT", uc1.getStatus());
+
+        Thread.sleep(SETTLE_MILLIS);
+        assertEquals("BEREIT", uc1.getStatus());
+    }
+}